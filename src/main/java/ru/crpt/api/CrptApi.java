@@ -1,20 +1,34 @@
 package ru.crpt.api;
 
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 public final class CrptApi {
@@ -23,8 +37,12 @@ public final class CrptApi {
     private final JsonSerializer json;
     private final HttpConfig httpConfig;
     private final Logger logger;
+    private final DocStatusQuery statusQuery;
 
     private static final String DEFAULT_CREATE_DOC_PATH = "/api/v3/lk/documents/create";
+    private static final String DEFAULT_DOC_LIST_PATH = "/api/v4/true-api/doc/list";
+    static final int MAX_STATUS_BATCH = 100;
+    static final int MAX_STATUS_QUERY_CHARS = 6000;
 
     public CrptApi(TimeUnit timeUnit, int requestLimit) {
         Objects.requireNonNull(timeUnit, "единица времени");
@@ -36,15 +54,17 @@ public final class CrptApi {
         this.httpExecutor = new JavaHttpClientExecutor(httpConfig);
         this.json = new JacksonJsonSerializer();
         this.logger = Logger.noop();
+        this.statusQuery = DocStatusQuery.idsParam(DEFAULT_DOC_LIST_PATH);
     }
 
     CrptApi(Builder b) {
         Objects.requireNonNull(b, "builder");
         this.rateLimiter = b.rateLimiter != null ? b.rateLimiter : new FixedWindowRateLimiter(b.limitRequests, b.limitUnit);
         this.httpConfig = b.httpConfig != null ? b.httpConfig : HttpConfig.defaults();
-        this.httpExecutor = b.httpExecutor != null ? b.httpExecutor : new JavaHttpClientExecutor(this.httpConfig);
+        this.httpExecutor = b.httpExecutor != null ? b.httpExecutor : new JavaHttpClientExecutor(this.httpConfig, b.httpClient);
         this.json = b.json != null ? b.json : new JacksonJsonSerializer();
         this.logger = b.logger != null ? b.logger : Logger.noop();
+        this.statusQuery = b.statusQuery != null ? b.statusQuery : DocStatusQuery.idsParam(DEFAULT_DOC_LIST_PATH);
     }
 
     public static final class Result {
@@ -117,21 +137,35 @@ public final class CrptApi {
 
     public CreateDocResult createDocumentForDomesticGoodsParsed(Object document, String signature, CallOptions options)
             throws InterruptedException, CrptApiException {
+        return createDocument(DocumentType.LP_INTRODUCE_GOODS, document, signature, options);
+    }
+
+    public CreateDocResult createDocument(Document document, String signature, CallOptions options)
+            throws InterruptedException, CrptApiException {
+        Objects.requireNonNull(document, "document");
+        return createDocument(document.documentType(), document, signature, options);
+    }
+
+    public CreateDocResult createDocument(DocumentType type, Object document, String signature, CallOptions options)
+            throws InterruptedException, CrptApiException {
+        Objects.requireNonNull(type, "type");
         Objects.requireNonNull(document, "document");
         Objects.requireNonNull(signature, "signature");
+        if (document instanceof Document && ((Document) document).documentType() != type) {
+            throw new IllegalArgumentException("Тип документа " + ((Document) document).documentType() + " не совпадает с запрошенным " + type);
+        }
 
         acquirePermit();
 
         try {
-            String docJson = json.toJson(document);
-            String productDocument = Base64.getEncoder().encodeToString(docJson.getBytes(StandardCharsets.UTF_8));
+            String productDocument = encodeProductDocument(document);
 
             CreateDocRequest payload = new CreateDocRequest(
                     "MANUAL",
                     productDocument,
                     options != null ? options.productGroup : null,
                     signature,
-                    "LP_INTRODUCE_GOODS"
+                    type.name()
             );
             String body = json.toJson(payload);
 
@@ -168,6 +202,81 @@ public final class CrptApi {
         }
     }
 
+    private String encodeProductDocument(Object document) throws Exception {
+        if (document instanceof Document) {
+            JsonBytesWriter w = DocumentCodecs.write((Document) document);
+            if (w != null) return w.toBase64();
+        }
+        String docJson = json.toJson(document);
+        return Base64.getEncoder().encodeToString(docJson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Map<String, DocumentStatus> getDocumentStatuses(Collection<String> docIds, CallOptions options)
+            throws InterruptedException, CrptApiException {
+        Objects.requireNonNull(docIds, "docIds");
+        Map<String, DocumentStatus> statuses = new HashMap<>();
+        for (List<String> chunk : chunkDocIds(docIds)) {
+            acquirePermit();
+            statuses.putAll(fetchDocumentStatuses(chunk, options));
+        }
+        return statuses;
+    }
+
+    public DocumentStatusTracker statusTracker() {
+        return statusTracker(StatusTrackerConfig.defaults(), null);
+    }
+
+    public DocumentStatusTracker statusTracker(StatusTrackerConfig config, CallOptions options) {
+        return new DocumentStatusTracker(this, Objects.requireNonNull(config, "config"), options);
+    }
+
+    int statusQueryChars(String docId) {
+        return statusQuery.queryChars(docId);
+    }
+
+    List<List<String>> chunkDocIds(Collection<String> docIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int chars = 0;
+        for (String id : docIds) {
+            int cost = statusQueryChars(Objects.requireNonNull(id, "docId"));
+            if (!current.isEmpty() && (current.size() >= MAX_STATUS_BATCH || chars + cost > MAX_STATUS_QUERY_CHARS)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(id);
+            chars += cost;
+        }
+        if (!current.isEmpty()) chunks.add(current);
+        return chunks;
+    }
+
+    Map<String, DocumentStatus> fetchDocumentStatuses(List<String> docIds, CallOptions options) throws CrptApiException {
+        if (docIds.isEmpty()) return Map.of();
+        try {
+            URI uri = httpConfig.baseUri.resolve(statusQuery.pathAndQuery(docIds, options));
+
+            Map<String, String> headers = new HashMap<>(httpConfig.defaultHeaders);
+            if (options != null && options.headers != null) headers.putAll(options.headers);
+
+            logger.debug(() -> "GET " + uri + ", ids=" + docIds.size());
+
+            HttpReq req = new HttpReq("GET", uri, headers, null, options != null ? options.requestTimeout : httpConfig.readTimeout);
+            Result raw = httpExecutor.execute(req);
+
+            if (raw.statusCode < 200 || raw.statusCode >= 300) throw mapStatusToException(raw);
+
+            if (raw.body == null || raw.body.isBlank()) return Map.of();
+            Map<String, DocumentStatus> statuses = statusQuery.parse(raw.body, json);
+            return statuses != null ? statuses : Map.of();
+        } catch (CrptApiException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CrptApiException("Ошибка запроса статусов документов", e);
+        }
+    }
+
     private CrptApiException mapStatusToException(Result raw) {
         int sc = raw.statusCode;
         String body = raw.body;
@@ -191,6 +300,10 @@ public final class CrptApi {
         return rateLimiter.tryAcquire();
     }
 
+    HttpExecutor httpExecutor() {
+        return httpExecutor;
+    }
+
     public interface RateLimiter {
         void acquire() throws InterruptedException;
         boolean tryAcquire();
@@ -238,13 +351,32 @@ public final class CrptApi {
     }
 
     static final class JavaHttpClientExecutor implements HttpExecutor {
-        private final HttpClient client;
         private final HttpConfig cfg;
+        private volatile HttpClient client;
         JavaHttpClientExecutor(HttpConfig cfg) {
+            this(cfg, null);
+        }
+        JavaHttpClientExecutor(HttpConfig cfg, HttpClient sharedClient) {
             this.cfg = cfg;
-            this.client = HttpClient.newBuilder()
-                    .connectTimeout(cfg.connectTimeout)
-                    .build();
+            this.client = sharedClient;
+        }
+        boolean isClientInitialized() {
+            return client != null;
+        }
+        HttpClient client() {
+            HttpClient c = client;
+            if (c == null) {
+                synchronized (this) {
+                    c = client;
+                    if (c == null) {
+                        c = HttpClient.newBuilder()
+                                .connectTimeout(cfg.connectTimeout)
+                                .build();
+                        client = c;
+                    }
+                }
+            }
+            return c;
         }
         @Override
         public Result execute(HttpReq r) throws CrptApiException {
@@ -266,7 +398,7 @@ public final class CrptApi {
                 if (r.headers != null) {
                     r.headers.forEach(b::header);
                 }
-                HttpResponse<String> resp = client.send(b.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+                HttpResponse<String> resp = client().send(b.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
                 return new Result(resp.statusCode(), resp.body(), resp.headers().map());
             } catch (HttpTimeoutException tex) {
                 throw new TimeoutCrptApiException("Истек таймаут HTTP-запроса", tex);
@@ -282,14 +414,18 @@ public final class CrptApi {
     }
 
     static final class JacksonJsonSerializer implements JsonSerializer {
-        private final com.fasterxml.jackson.databind.ObjectMapper mapper;
-        JacksonJsonSerializer() {
-            mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            mapper.findAndRegisterModules();
+        private static final class MapperHolder {
+            static final com.fasterxml.jackson.databind.ObjectMapper MAPPER = newMapper();
+        }
+        static com.fasterxml.jackson.databind.ObjectMapper newMapper() {
+            var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+            mapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
             mapper.setSerializationInclusion(com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL);
+            return mapper;
         }
-        @Override public String toJson(Object value) throws Exception { return mapper.writeValueAsString(value); }
-        @Override public <T> T fromJson(String json, Class<T> type) throws Exception { return mapper.readValue(json, type); }
+        private static com.fasterxml.jackson.databind.ObjectMapper mapper() { return MapperHolder.MAPPER; }
+        @Override public String toJson(Object value) throws Exception { return mapper().writeValueAsString(value); }
+        @Override public <T> T fromJson(String json, Class<T> type) throws Exception { return mapper().readValue(json, type); }
     }
 
     static final class CreateDocRequest {
@@ -309,13 +445,853 @@ public final class CrptApi {
 
     public static final class CreateDocResponse { public String value; }
 
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
+    static final class DocListResponse { public List<DocListItem> results; }
+
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
+    static final class DocListItem {
+        public String number;
+        public String status;
+    }
+
+    public static final class DocumentStatus {
+        private static final Set<String> TERMINAL = Set.of("CHECKED_OK", "CHECKED_NOT_OK", "PROCESSING_ERROR", "CANCELLED", "ACCEPTED");
+        public final String docId;
+        public final String status;
+        public DocumentStatus(String docId, String status) {
+            this.docId = docId;
+            this.status = status;
+        }
+        public boolean isTerminal() { return status != null && TERMINAL.contains(status); }
+    }
+
+    public interface DocStatusQuery {
+        String pathAndQuery(List<String> docIds, CallOptions options);
+
+        default Map<String, DocumentStatus> parse(String body, JsonSerializer json) throws Exception {
+            DocListResponse parsed = json.fromJson(body, DocListResponse.class);
+            Map<String, DocumentStatus> statuses = new HashMap<>();
+            if (parsed != null && parsed.results != null) {
+                for (DocListItem item : parsed.results) {
+                    if (item.number != null) statuses.put(item.number, new DocumentStatus(item.number, item.status));
+                }
+            }
+            return statuses;
+        }
+
+        default int queryChars(String docId) {
+            return URLEncoder.encode(docId, StandardCharsets.UTF_8).length() + 1;
+        }
+
+        static DocStatusQuery idsParam(String path) {
+            Objects.requireNonNull(path, "path");
+            return (docIds, options) -> {
+                StringBuilder query = new StringBuilder(path).append("?ids=");
+                for (int i = 0; i < docIds.size(); i++) {
+                    if (i > 0) query.append(',');
+                    query.append(URLEncoder.encode(docIds.get(i), StandardCharsets.UTF_8));
+                }
+                String pg = buildPgQuerySuffix(options);
+                if (!pg.isEmpty()) query.append('&').append(pg, 1, pg.length());
+                return query.toString();
+            };
+        }
+    }
+
+    public static final class StatusTrackerConfig {
+        public final int batchSize;
+        public final int maxPollsPerSecond;
+        public final Duration minPollInterval;
+        public final Duration maxPollInterval;
+        public final Duration maxTrackingDuration;
+        public final int cacheSize;
+        public StatusTrackerConfig(int batchSize, int maxPollsPerSecond, Duration minPollInterval, Duration maxPollInterval,
+                                   Duration maxTrackingDuration, int cacheSize) {
+            if (batchSize <= 0 || batchSize > MAX_STATUS_BATCH) {
+                throw new IllegalArgumentException("batchSize должен быть в диапазоне 1.." + MAX_STATUS_BATCH);
+            }
+            if (maxPollsPerSecond <= 0) throw new IllegalArgumentException("maxPollsPerSecond должен быть > 0");
+            if (cacheSize < 0) throw new IllegalArgumentException("cacheSize должен быть >= 0");
+            this.minPollInterval = Objects.requireNonNull(minPollInterval, "minPollInterval");
+            this.maxPollInterval = Objects.requireNonNull(maxPollInterval, "maxPollInterval");
+            this.maxTrackingDuration = Objects.requireNonNull(maxTrackingDuration, "maxTrackingDuration");
+            if (minPollInterval.isNegative() || minPollInterval.isZero() || maxPollInterval.compareTo(minPollInterval) < 0) {
+                throw new IllegalArgumentException("Требуется 0 < minPollInterval <= maxPollInterval");
+            }
+            if (maxTrackingDuration.isNegative() || maxTrackingDuration.isZero()) {
+                throw new IllegalArgumentException("maxTrackingDuration должен быть > 0");
+            }
+            this.batchSize = batchSize;
+            this.maxPollsPerSecond = maxPollsPerSecond;
+            this.cacheSize = cacheSize;
+        }
+        public static StatusTrackerConfig defaults() {
+            return new StatusTrackerConfig(100, 2, Duration.ofSeconds(1), Duration.ofSeconds(60), Duration.ofHours(24), 100_000);
+        }
+    }
+
+    public static final class DocumentStatusTracker implements AutoCloseable {
+        private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+        private final CrptApi api;
+        private final CallOptions options;
+        private final LongSupplier clock;
+        private final boolean autoStart;
+        private final int batchSize;
+        private final int maxPollsPerSecond;
+        private final long minIntervalNanos;
+        private final long maxIntervalNanos;
+        private final long maxTrackingNanos;
+        private final Duration maxTrackingDuration;
+        private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+        private final PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> {
+            int byTime = Long.compare(a.nextPollNanos - b.nextPollNanos, 0L);
+            return byTime != 0 ? byTime : Long.compare(a.seq, b.seq);
+        });
+        private long enqueueSeq;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, DocumentStatus> terminalCache;
+        private volatile ScheduledExecutorService scheduler;
+        private volatile boolean closed;
+        private long pollWindowStartNanos;
+        private int pollsInWindow;
+
+        private static final class Pending {
+            final String docId;
+            final int queryChars;
+            final long deadlineNanos;
+            final CompletableFuture<DocumentStatus> future = new CompletableFuture<>();
+            long intervalNanos;
+            long nextPollNanos;
+            long seq;
+            String lastStatus;
+            Pending(String docId, int queryChars, long intervalNanos, long nextPollNanos, long deadlineNanos) {
+                this.docId = docId;
+                this.queryChars = queryChars;
+                this.intervalNanos = intervalNanos;
+                this.nextPollNanos = nextPollNanos;
+                this.deadlineNanos = deadlineNanos;
+            }
+        }
+
+        DocumentStatusTracker(CrptApi api, StatusTrackerConfig cfg, CallOptions options) {
+            this(api, cfg, options, System::nanoTime, true);
+        }
+
+        DocumentStatusTracker(CrptApi api, StatusTrackerConfig cfg, CallOptions options, LongSupplier clock, boolean autoStart) {
+            this.api = api;
+            this.options = options;
+            this.clock = clock;
+            this.autoStart = autoStart;
+            this.batchSize = cfg.batchSize;
+            this.maxPollsPerSecond = cfg.maxPollsPerSecond;
+            this.minIntervalNanos = cfg.minPollInterval.toNanos();
+            this.maxIntervalNanos = cfg.maxPollInterval.toNanos();
+            this.maxTrackingNanos = cfg.maxTrackingDuration.toNanos();
+            this.maxTrackingDuration = cfg.maxTrackingDuration;
+            this.pollWindowStartNanos = clock.getAsLong();
+            final int cacheSize = cfg.cacheSize;
+            this.terminalCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override protected boolean removeEldestEntry(Map.Entry<String, DocumentStatus> eldest) { return size() > cacheSize; }
+            });
+        }
+
+        public CompletableFuture<DocumentStatus> track(String docId) {
+            Objects.requireNonNull(docId, "docId");
+            Pending p;
+            lock.lock();
+            try {
+                if (closed) throw new IllegalStateException("Трекер статусов закрыт");
+                DocumentStatus cached = terminalCache.get(docId);
+                if (cached != null) return CompletableFuture.completedFuture(cached);
+                p = pending.computeIfAbsent(docId, id -> {
+                    long now = clock.getAsLong();
+                    Pending n = new Pending(id, api.statusQueryChars(id), minIntervalNanos, now + minIntervalNanos, now + maxTrackingNanos);
+                    n.seq = enqueueSeq++;
+                    queue.add(n);
+                    return n;
+                });
+            } finally {
+                lock.unlock();
+            }
+            ensureStarted();
+            return p.future.copy();
+        }
+
+        public DocumentStatus cachedStatus(String docId) {
+            return terminalCache.get(docId);
+        }
+
+        public int pendingCount() {
+            lock.lock();
+            try {
+                return pending.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            List<Pending> toCancel;
+            lock.lock();
+            try {
+                closed = true;
+                toCancel = new ArrayList<>(pending.values());
+                pending.clear();
+                queue.clear();
+            } finally {
+                lock.unlock();
+            }
+            synchronized (this) {
+                if (scheduler != null) scheduler.shutdownNow();
+            }
+            for (Pending p : toCancel) p.future.cancel(false);
+        }
+
+        void pollDue() {
+            try {
+                while (!closed) {
+                    long now = clock.getAsLong();
+                    expireOverdue(now);
+                    if (!hasDue(now) || !hasPollSlot(now) || !api.tryAcquirePermit()) return;
+                    pollsInWindow++;
+                    List<Pending> batch = takeDue(now);
+                    if (batch.isEmpty()) return;
+                    pollBatch(batch);
+                }
+            } catch (RuntimeException e) {
+                api.logger.error(() -> "Ошибка опроса статусов документов", e);
+            }
+        }
+
+        private boolean hasPollSlot(long now) {
+            if (now - pollWindowStartNanos >= SECOND_NANOS) {
+                pollWindowStartNanos = now;
+                pollsInWindow = 0;
+            }
+            return pollsInWindow < maxPollsPerSecond;
+        }
+
+        private void expireOverdue(long now) {
+            List<Pending> expired = new ArrayList<>();
+            lock.lock();
+            try {
+                var it = pending.values().iterator();
+                while (it.hasNext()) {
+                    Pending p = it.next();
+                    if (p.deadlineNanos - now > 0) break;
+                    it.remove();
+                    expired.add(p);
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (Pending p : expired) p.future.completeExceptionally(timeout(p));
+        }
+
+        private TimeoutCrptApiException timeout(Pending p) {
+            return new TimeoutCrptApiException(
+                    "Статус документа " + p.docId + " не стал финальным за " + maxTrackingDuration
+                            + " (последний: " + p.lastStatus + ")", null);
+        }
+
+        private void removePending(Pending p) {
+            lock.lock();
+            try {
+                pending.remove(p.docId, p);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void pollBatch(List<Pending> batch) {
+            List<String> ids = new ArrayList<>(batch.size());
+            for (Pending p : batch) ids.add(p.docId);
+            Map<String, DocumentStatus> statuses;
+            try {
+                statuses = api.fetchDocumentStatuses(ids, options);
+            } catch (AuthenticationException | BadRequestException e) {
+                failAll(batch, e);
+                return;
+            } catch (CrptApiException e) {
+                api.logger.warn(() -> "Опрос статусов не удался, повтор позже: " + e.getMessage());
+                long now = clock.getAsLong();
+                for (Pending p : batch) {
+                    reschedule(p, now, e instanceof RateLimitExceededException ? maxIntervalNanos : backoff(p.intervalNanos));
+                }
+                return;
+            } catch (RuntimeException e) {
+                failAll(batch, new CrptApiException("Ошибка опроса статусов документов", e));
+                return;
+            }
+            long now = clock.getAsLong();
+            for (Pending p : batch) {
+                DocumentStatus s = statuses.get(p.docId);
+                if (s != null && s.isTerminal()) {
+                    terminalCache.put(p.docId, s);
+                    removePending(p);
+                    p.future.complete(s);
+                    continue;
+                }
+                String status = s != null ? s.status : null;
+                long interval = status != null && !status.equals(p.lastStatus) ? minIntervalNanos : backoff(p.intervalNanos);
+                p.lastStatus = status;
+                reschedule(p, now, interval);
+            }
+        }
+
+        private void reschedule(Pending p, long now, long intervalNanos) {
+            if (now - p.deadlineNanos >= 0) {
+                removePending(p);
+                p.future.completeExceptionally(timeout(p));
+                return;
+            }
+            p.intervalNanos = intervalNanos;
+            long next = now + intervalNanos;
+            p.nextPollNanos = next - p.deadlineNanos > 0 ? p.deadlineNanos : next;
+            enqueue(p);
+        }
+
+        private void failAll(List<Pending> batch, CrptApiException e) {
+            for (Pending p : batch) {
+                removePending(p);
+                p.future.completeExceptionally(e);
+            }
+        }
+
+        private long backoff(long intervalNanos) {
+            return Math.min(maxIntervalNanos, intervalNanos << 1);
+        }
+
+        private boolean hasDue(long now) {
+            lock.lock();
+            try {
+                Pending head = liveHead();
+                return head != null && head.nextPollNanos - now <= 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Pending> takeDue(long now) {
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, 64));
+            int chars = 0;
+            lock.lock();
+            try {
+                while (batch.size() < batchSize) {
+                    Pending head = liveHead();
+                    if (head == null || head.nextPollNanos - now > 0) break;
+                    if (!batch.isEmpty() && chars + head.queryChars > MAX_STATUS_QUERY_CHARS) break;
+                    chars += head.queryChars;
+                    batch.add(queue.poll());
+                }
+            } finally {
+                lock.unlock();
+            }
+            return batch;
+        }
+
+        private Pending liveHead() {
+            Pending head = queue.peek();
+            while (head != null && pending.get(head.docId) != head) {
+                queue.poll();
+                head = queue.peek();
+            }
+            return head;
+        }
+
+        private void enqueue(Pending p) {
+            lock.lock();
+            try {
+                if (closed || pending.get(p.docId) != p) return;
+                p.seq = enqueueSeq++;
+                queue.add(p);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void ensureStarted() {
+            if (!autoStart || scheduler != null) return;
+            synchronized (this) {
+                if (scheduler != null || closed) return;
+                ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "crpt-status-tracker");
+                    t.setDaemon(true);
+                    return t;
+                });
+                long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(10), minIntervalNanos / 4);
+                s.scheduleWithFixedDelay(this::pollDue, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+                scheduler = s;
+            }
+        }
+    }
+
+    public enum DocumentType {
+        LP_INTRODUCE_GOODS,
+        LP_SHIP_GOODS,
+        LP_ACCEPT_GOODS,
+        LK_RECEIPT
+    }
+
+    public interface Document {
+        DocumentType documentType();
+    }
+
+    public static final class IntroduceGoodsDocument implements Document {
+        public Description description;
+        public String doc_id;
+        public String doc_status;
+        public Boolean importRequest;
+        public String owner_inn;
+        public String participant_inn;
+        public String producer_inn;
+        public LocalDate production_date;
+        public String production_type;
+        public List<Product> products;
+        public LocalDate reg_date;
+        public String reg_number;
+
+        public static final class Description {
+            public String participantInn;
+        }
+
+        public static final class Product {
+            public String certificate_document;
+            public LocalDate certificate_document_date;
+            public String certificate_document_number;
+            public String owner_inn;
+            public String producer_inn;
+            public LocalDate production_date;
+            public String tnved_code;
+            public String uit_code;
+            public String uitu_code;
+        }
+
+        @Override public DocumentType documentType() { return DocumentType.LP_INTRODUCE_GOODS; }
+    }
+
+    public static final class ShipmentDocument implements Document {
+        public String document_num;
+        public LocalDate document_date;
+        public LocalDate transfer_date;
+        public String turnover_type;
+        public String sender_inn;
+        public String receiver_inn;
+        public List<Product> products;
+
+        public static final class Product {
+            public String uit_code;
+            public String uitu_code;
+            public String product_description;
+            public Long product_cost;
+            public Long product_tax;
+        }
+
+        @Override public DocumentType documentType() { return DocumentType.LP_SHIP_GOODS; }
+    }
+
+    public static final class AcceptanceDocument implements Document {
+        public Boolean accept_all;
+        public String document_num;
+        public LocalDate document_date;
+        public LocalDate transfer_date;
+        public LocalDate acceptance_date;
+        public String turnover_type;
+        public String sender_inn;
+        public String receiver_inn;
+        public List<Product> products;
+
+        public static final class Product {
+            public String uit_code;
+            public String uitu_code;
+            public String product_description;
+            public Long product_cost;
+            public Long product_tax;
+            public Boolean accept_type;
+        }
+
+        @Override public DocumentType documentType() { return DocumentType.LP_ACCEPT_GOODS; }
+    }
+
+    public static final class WithdrawalDocument implements Document {
+        public String inn;
+        public String action;
+        public LocalDate action_date;
+        public String document_type;
+        public String document_number;
+        public LocalDate document_date;
+        public String primary_document_custom_name;
+        public List<Product> products;
+
+        public static final class Product {
+            public String cis;
+            public Long product_cost;
+            public String primary_document_type;
+            public String primary_document_number;
+            public LocalDate primary_document_date;
+        }
+
+        @Override public DocumentType documentType() { return DocumentType.LK_RECEIPT; }
+    }
+
+    interface DocumentCodec<D extends Document> {
+        void write(D document, JsonBytesWriter out);
+    }
+
+    static final class DocumentCodecs {
+        private DocumentCodecs() { }
+
+        static JsonBytesWriter write(Document document) {
+            JsonBytesWriter w = new JsonBytesWriter(512);
+            if (document instanceof IntroduceGoodsDocument d) INTRODUCE_GOODS.write(d, w);
+            else if (document instanceof ShipmentDocument d) SHIPMENT.write(d, w);
+            else if (document instanceof AcceptanceDocument d) ACCEPTANCE.write(d, w);
+            else if (document instanceof WithdrawalDocument d) WITHDRAWAL.write(d, w);
+            else return null;
+            return w;
+        }
+
+        private static final byte[] K_DESCRIPTION = JsonBytesWriter.key("description");
+        private static final byte[] K_PARTICIPANT_INN_CAMEL = JsonBytesWriter.key("participantInn");
+        private static final byte[] K_DOC_ID = JsonBytesWriter.key("doc_id");
+        private static final byte[] K_DOC_STATUS = JsonBytesWriter.key("doc_status");
+        private static final byte[] K_DOC_TYPE = JsonBytesWriter.key("doc_type");
+        private static final byte[] K_IMPORT_REQUEST = JsonBytesWriter.key("importRequest");
+        private static final byte[] K_OWNER_INN = JsonBytesWriter.key("owner_inn");
+        private static final byte[] K_PARTICIPANT_INN = JsonBytesWriter.key("participant_inn");
+        private static final byte[] K_PRODUCER_INN = JsonBytesWriter.key("producer_inn");
+        private static final byte[] K_PRODUCTION_DATE = JsonBytesWriter.key("production_date");
+        private static final byte[] K_PRODUCTION_TYPE = JsonBytesWriter.key("production_type");
+        private static final byte[] K_PRODUCTS = JsonBytesWriter.key("products");
+        private static final byte[] K_REG_DATE = JsonBytesWriter.key("reg_date");
+        private static final byte[] K_REG_NUMBER = JsonBytesWriter.key("reg_number");
+        private static final byte[] K_CERTIFICATE_DOCUMENT = JsonBytesWriter.key("certificate_document");
+        private static final byte[] K_CERTIFICATE_DOCUMENT_DATE = JsonBytesWriter.key("certificate_document_date");
+        private static final byte[] K_CERTIFICATE_DOCUMENT_NUMBER = JsonBytesWriter.key("certificate_document_number");
+        private static final byte[] K_TNVED_CODE = JsonBytesWriter.key("tnved_code");
+        private static final byte[] K_UIT_CODE = JsonBytesWriter.key("uit_code");
+        private static final byte[] K_UITU_CODE = JsonBytesWriter.key("uitu_code");
+        private static final byte[] K_DOCUMENT_NUM = JsonBytesWriter.key("document_num");
+        private static final byte[] K_DOCUMENT_DATE = JsonBytesWriter.key("document_date");
+        private static final byte[] K_TRANSFER_DATE = JsonBytesWriter.key("transfer_date");
+        private static final byte[] K_ACCEPTANCE_DATE = JsonBytesWriter.key("acceptance_date");
+        private static final byte[] K_TURNOVER_TYPE = JsonBytesWriter.key("turnover_type");
+        private static final byte[] K_SENDER_INN = JsonBytesWriter.key("sender_inn");
+        private static final byte[] K_RECEIVER_INN = JsonBytesWriter.key("receiver_inn");
+        private static final byte[] K_ACCEPT_ALL = JsonBytesWriter.key("accept_all");
+        private static final byte[] K_ACCEPT_TYPE = JsonBytesWriter.key("accept_type");
+        private static final byte[] K_PRODUCT_DESCRIPTION = JsonBytesWriter.key("product_description");
+        private static final byte[] K_PRODUCT_COST = JsonBytesWriter.key("product_cost");
+        private static final byte[] K_PRODUCT_TAX = JsonBytesWriter.key("product_tax");
+        private static final byte[] K_INN = JsonBytesWriter.key("inn");
+        private static final byte[] K_ACTION = JsonBytesWriter.key("action");
+        private static final byte[] K_ACTION_DATE = JsonBytesWriter.key("action_date");
+        private static final byte[] K_DOCUMENT_TYPE = JsonBytesWriter.key("document_type");
+        private static final byte[] K_DOCUMENT_NUMBER = JsonBytesWriter.key("document_number");
+        private static final byte[] K_PRIMARY_DOCUMENT_CUSTOM_NAME = JsonBytesWriter.key("primary_document_custom_name");
+        private static final byte[] K_CIS = JsonBytesWriter.key("cis");
+        private static final byte[] K_PRIMARY_DOCUMENT_TYPE = JsonBytesWriter.key("primary_document_type");
+        private static final byte[] K_PRIMARY_DOCUMENT_NUMBER = JsonBytesWriter.key("primary_document_number");
+        private static final byte[] K_PRIMARY_DOCUMENT_DATE = JsonBytesWriter.key("primary_document_date");
+
+        static final DocumentCodec<IntroduceGoodsDocument> INTRODUCE_GOODS = (d, w) -> {
+            w.beginObject();
+            if (d.description != null) {
+                w.field(K_DESCRIPTION).beginObject();
+                w.stringField(K_PARTICIPANT_INN_CAMEL, d.description.participantInn);
+                w.endObject();
+            }
+            w.stringField(K_DOC_ID, d.doc_id);
+            w.stringField(K_DOC_STATUS, d.doc_status);
+            w.stringField(K_DOC_TYPE, DocumentType.LP_INTRODUCE_GOODS.name());
+            w.boolField(K_IMPORT_REQUEST, d.importRequest);
+            w.stringField(K_OWNER_INN, d.owner_inn);
+            w.stringField(K_PARTICIPANT_INN, d.participant_inn);
+            w.stringField(K_PRODUCER_INN, d.producer_inn);
+            w.dateField(K_PRODUCTION_DATE, d.production_date);
+            w.stringField(K_PRODUCTION_TYPE, d.production_type);
+            if (d.products != null) {
+                w.field(K_PRODUCTS).beginArray();
+                for (IntroduceGoodsDocument.Product p : d.products) {
+                    if (p == null) {
+                        w.nullValue();
+                        continue;
+                    }
+                    w.beginObject();
+                    w.stringField(K_CERTIFICATE_DOCUMENT, p.certificate_document);
+                    w.dateField(K_CERTIFICATE_DOCUMENT_DATE, p.certificate_document_date);
+                    w.stringField(K_CERTIFICATE_DOCUMENT_NUMBER, p.certificate_document_number);
+                    w.stringField(K_OWNER_INN, p.owner_inn);
+                    w.stringField(K_PRODUCER_INN, p.producer_inn);
+                    w.dateField(K_PRODUCTION_DATE, p.production_date);
+                    w.stringField(K_TNVED_CODE, p.tnved_code);
+                    w.stringField(K_UIT_CODE, p.uit_code);
+                    w.stringField(K_UITU_CODE, p.uitu_code);
+                    w.endObject();
+                }
+                w.endArray();
+            }
+            w.dateField(K_REG_DATE, d.reg_date);
+            w.stringField(K_REG_NUMBER, d.reg_number);
+            w.endObject();
+        };
+
+        static final DocumentCodec<ShipmentDocument> SHIPMENT = (d, w) -> {
+            w.beginObject();
+            w.stringField(K_DOCUMENT_NUM, d.document_num);
+            w.dateField(K_DOCUMENT_DATE, d.document_date);
+            w.dateField(K_TRANSFER_DATE, d.transfer_date);
+            w.stringField(K_TURNOVER_TYPE, d.turnover_type);
+            w.stringField(K_SENDER_INN, d.sender_inn);
+            w.stringField(K_RECEIVER_INN, d.receiver_inn);
+            if (d.products != null) {
+                w.field(K_PRODUCTS).beginArray();
+                for (ShipmentDocument.Product p : d.products) {
+                    if (p == null) {
+                        w.nullValue();
+                        continue;
+                    }
+                    w.beginObject();
+                    w.stringField(K_UIT_CODE, p.uit_code);
+                    w.stringField(K_UITU_CODE, p.uitu_code);
+                    w.stringField(K_PRODUCT_DESCRIPTION, p.product_description);
+                    w.longField(K_PRODUCT_COST, p.product_cost);
+                    w.longField(K_PRODUCT_TAX, p.product_tax);
+                    w.endObject();
+                }
+                w.endArray();
+            }
+            w.endObject();
+        };
+
+        static final DocumentCodec<AcceptanceDocument> ACCEPTANCE = (d, w) -> {
+            w.beginObject();
+            w.boolField(K_ACCEPT_ALL, d.accept_all);
+            w.stringField(K_DOCUMENT_NUM, d.document_num);
+            w.dateField(K_DOCUMENT_DATE, d.document_date);
+            w.dateField(K_TRANSFER_DATE, d.transfer_date);
+            w.dateField(K_ACCEPTANCE_DATE, d.acceptance_date);
+            w.stringField(K_TURNOVER_TYPE, d.turnover_type);
+            w.stringField(K_SENDER_INN, d.sender_inn);
+            w.stringField(K_RECEIVER_INN, d.receiver_inn);
+            if (d.products != null) {
+                w.field(K_PRODUCTS).beginArray();
+                for (AcceptanceDocument.Product p : d.products) {
+                    if (p == null) {
+                        w.nullValue();
+                        continue;
+                    }
+                    w.beginObject();
+                    w.stringField(K_UIT_CODE, p.uit_code);
+                    w.stringField(K_UITU_CODE, p.uitu_code);
+                    w.stringField(K_PRODUCT_DESCRIPTION, p.product_description);
+                    w.longField(K_PRODUCT_COST, p.product_cost);
+                    w.longField(K_PRODUCT_TAX, p.product_tax);
+                    w.boolField(K_ACCEPT_TYPE, p.accept_type);
+                    w.endObject();
+                }
+                w.endArray();
+            }
+            w.endObject();
+        };
+
+        static final DocumentCodec<WithdrawalDocument> WITHDRAWAL = (d, w) -> {
+            w.beginObject();
+            w.stringField(K_INN, d.inn);
+            w.stringField(K_ACTION, d.action);
+            w.dateField(K_ACTION_DATE, d.action_date);
+            w.stringField(K_DOCUMENT_TYPE, d.document_type);
+            w.stringField(K_DOCUMENT_NUMBER, d.document_number);
+            w.dateField(K_DOCUMENT_DATE, d.document_date);
+            w.stringField(K_PRIMARY_DOCUMENT_CUSTOM_NAME, d.primary_document_custom_name);
+            if (d.products != null) {
+                w.field(K_PRODUCTS).beginArray();
+                for (WithdrawalDocument.Product p : d.products) {
+                    if (p == null) {
+                        w.nullValue();
+                        continue;
+                    }
+                    w.beginObject();
+                    w.stringField(K_CIS, p.cis);
+                    w.longField(K_PRODUCT_COST, p.product_cost);
+                    w.stringField(K_PRIMARY_DOCUMENT_TYPE, p.primary_document_type);
+                    w.stringField(K_PRIMARY_DOCUMENT_NUMBER, p.primary_document_number);
+                    w.dateField(K_PRIMARY_DOCUMENT_DATE, p.primary_document_date);
+                    w.endObject();
+                }
+                w.endArray();
+            }
+            w.endObject();
+        };
+    }
+
+    static final class JsonBytesWriter {
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+        private byte[] buf;
+        private int len;
+        private boolean needComma;
+        private boolean afterKey;
+
+        JsonBytesWriter(int initialCapacity) {
+            this.buf = new byte[Math.max(16, initialCapacity)];
+        }
+
+        static byte[] key(String name) {
+            byte[] n = name.getBytes(StandardCharsets.US_ASCII);
+            byte[] k = new byte[n.length + 3];
+            k[0] = '"';
+            System.arraycopy(n, 0, k, 1, n.length);
+            k[n.length + 1] = '"';
+            k[n.length + 2] = ':';
+            return k;
+        }
+
+        JsonBytesWriter beginObject() { prefix(); put((byte) '{'); needComma = false; return this; }
+        JsonBytesWriter endObject() { put((byte) '}'); needComma = true; return this; }
+        JsonBytesWriter beginArray() { prefix(); put((byte) '['); needComma = false; return this; }
+        JsonBytesWriter endArray() { put((byte) ']'); needComma = true; return this; }
+
+        JsonBytesWriter field(byte[] key) {
+            if (needComma) put((byte) ',');
+            put(key, key.length);
+            afterKey = true;
+            return this;
+        }
+
+        void stringField(byte[] key, String value) { if (value != null) field(key).string(value); }
+        void longField(byte[] key, Long value) { if (value != null) field(key).number(value); }
+        void boolField(byte[] key, Boolean value) { if (value != null) field(key).bool(value); }
+        void dateField(byte[] key, LocalDate value) { if (value != null) field(key).string(value.toString()); }
+
+        JsonBytesWriter nullValue() {
+            prefix();
+            put(NULL, NULL.length);
+            needComma = true;
+            return this;
+        }
+
+        JsonBytesWriter bool(boolean v) {
+            prefix();
+            byte[] b = v ? TRUE : FALSE;
+            put(b, b.length);
+            needComma = true;
+            return this;
+        }
+
+        JsonBytesWriter number(long v) {
+            prefix();
+            String s = Long.toString(v);
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) buf[len++] = (byte) s.charAt(i);
+            needComma = true;
+            return this;
+        }
+
+        JsonBytesWriter string(String s) {
+            prefix();
+            int n = s.length();
+            ensure(n + 2);
+            buf[len++] = '"';
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                    ensure(1);
+                    buf[len++] = (byte) c;
+                } else if (c < 0x80) {
+                    escape(c);
+                } else if (c < 0x800) {
+                    ensure(2);
+                    buf[len++] = (byte) (0xC0 | (c >> 6));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    ensure(4);
+                    buf[len++] = (byte) (0xF0 | (cp >> 18));
+                    buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    ensure(1);
+                    buf[len++] = '?';
+                } else {
+                    ensure(3);
+                    buf[len++] = (byte) (0xE0 | (c >> 12));
+                    buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            ensure(1);
+            buf[len++] = '"';
+            needComma = true;
+            return this;
+        }
+
+        byte[] toByteArray() { return Arrays.copyOf(buf, len); }
+
+        String toBase64() {
+            ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(buf, 0, len));
+            return new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1);
+        }
+
+        private void escape(char c) {
+            ensure(6);
+            buf[len++] = '\\';
+            switch (c) {
+                case '"': buf[len++] = '"'; break;
+                case '\\': buf[len++] = '\\'; break;
+                case '\n': buf[len++] = 'n'; break;
+                case '\r': buf[len++] = 'r'; break;
+                case '\t': buf[len++] = 't'; break;
+                case '\b': buf[len++] = 'b'; break;
+                case '\f': buf[len++] = 'f'; break;
+                default:
+                    buf[len++] = 'u';
+                    buf[len++] = '0';
+                    buf[len++] = '0';
+                    buf[len++] = HEX[(c >> 4) & 0xF];
+                    buf[len++] = HEX[c & 0xF];
+            }
+        }
+
+        private void prefix() {
+            if (afterKey) {
+                afterKey = false;
+            } else if (needComma) {
+                put((byte) ',');
+            }
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            buf[len++] = b;
+        }
+
+        private void put(byte[] b, int n) {
+            ensure(n);
+            System.arraycopy(b, 0, buf, len, n);
+            len += n;
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, len + extra));
+            }
+        }
+    }
+
     public static final class Builder {
         private RateLimiter rateLimiter;
         private TimeUnit limitUnit = TimeUnit.SECONDS;
         private int limitRequests = 10;
         private HttpConfig httpConfig;
         private HttpExecutor httpExecutor;
+        private HttpClient httpClient;
         private JsonSerializer json;
+        private DocStatusQuery statusQuery;
         private Logger logger;
 
         public Builder limit(TimeUnit unit, int requests) { this.limitUnit = Objects.requireNonNull(unit); this.limitRequests = requests; return this; }
@@ -334,11 +1310,19 @@ public final class CrptApi {
         public Builder authBearer(String token) { return defaultHeader("Authorization", "Bearer " + token); }
         public Builder contentTypeJson() { return defaultHeader("Content-Type", "application/json"); }
         public Builder httpExecutor(HttpExecutor exec) { this.httpExecutor = exec; return this; }
+        public Builder httpClient(HttpClient client) { this.httpClient = client; return this; }
         public Builder json(JsonSerializer serializer) { this.json = serializer; return this; }
         public Builder logger(Logger logger) { this.logger = logger; return this; }
+        public Builder docStatusQuery(DocStatusQuery query) { this.statusQuery = query; return this; }
         @SuppressWarnings({"unused"})
         public Builder rateLimiter(RateLimiter limiter) { this.rateLimiter = limiter; return this; }
-        public CrptApi build() { if (httpConfig == null) httpConfig = HttpConfig.defaults(); return new CrptApi(this); }
+        public CrptApi build() {
+            if (httpExecutor != null && httpClient != null) {
+                throw new IllegalStateException("httpClient(...) нельзя сочетать с httpExecutor(...)");
+            }
+            if (httpConfig == null) httpConfig = HttpConfig.defaults();
+            return new CrptApi(this);
+        }
     }
 
     static final class FixedWindowRateLimiter implements RateLimiter {
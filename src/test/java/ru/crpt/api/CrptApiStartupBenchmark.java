@@ -0,0 +1,54 @@
+package ru.crpt.api;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public final class CrptApiStartupBenchmark {
+
+    private CrptApiStartupBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        long jvmToMainMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "{\"value\":\"bench-1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+            long t0 = System.nanoTime();
+            CrptApi api = new CrptApi.Builder()
+                    .baseUrl(baseUrl)
+                    .limit(TimeUnit.SECONDS, 10)
+                    .build();
+            long t1 = System.nanoTime();
+            CrptApi.CreateDocResult res = api.createDocumentForDomesticGoodsParsed(Map.of("owner_inn", "1234567890"), "sig==", null);
+            long t2 = System.nanoTime();
+            long jvmToFirstResponseMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+            if (res.parsed == null || !"bench-1".equals(res.parsed.value)) {
+                throw new IllegalStateException("Неожиданный ответ: " + res.raw.body);
+            }
+
+            System.out.printf("Старт JVM -> main:              %d мс%n", jvmToMainMillis);
+            System.out.printf("build():                        %.3f мс%n", (t1 - t0) / 1e6);
+            System.out.printf("build() -> первый ответ:        %.3f мс%n", (t2 - t1) / 1e6);
+            System.out.printf("Начало build() -> первый ответ: %.3f мс%n", (t2 - t0) / 1e6);
+            System.out.printf("Старт JVM -> первый ответ:      %d мс (включая запуск локального сервера)%n", jvmToFirstResponseMillis);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
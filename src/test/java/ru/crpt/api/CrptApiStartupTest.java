@@ -0,0 +1,47 @@
+package ru.crpt.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrptApiStartupTest {
+
+    @Test
+    void build_doesNotCreateHttpClient() {
+        CrptApi api = new CrptApi.Builder().build();
+        var exec = assertInstanceOf(CrptApi.JavaHttpClientExecutor.class, api.httpExecutor());
+        assertFalse(exec.isClientInitialized());
+    }
+
+    @Test
+    void sharedHttpClient_isUsedWithoutCreatingNewOne() {
+        HttpClient shared = HttpClient.newHttpClient();
+        var exec = new CrptApi.JavaHttpClientExecutor(CrptApi.HttpConfig.defaults(), shared);
+        assertTrue(exec.isClientInitialized());
+
+        CrptApi api = new CrptApi.Builder().httpClient(shared).build();
+        var builtExec = assertInstanceOf(CrptApi.JavaHttpClientExecutor.class, api.httpExecutor());
+        assertTrue(builtExec.isClientInitialized());
+        assertSame(shared, builtExec.client());
+    }
+
+    @Test
+    void httpClient_withCustomExecutor_isRejected() {
+        var builder = new CrptApi.Builder()
+                .httpClient(HttpClient.newHttpClient())
+                .httpExecutor(request -> new CrptApi.Result(200, "{}", Map.of()));
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    void jacksonSerializer_handlesJavaTimeWithoutModuleScan() throws Exception {
+        var json = new CrptApi.JacksonJsonSerializer();
+        String s = json.toJson(Map.of("at", Instant.parse("2024-01-01T00:00:00Z")));
+        assertTrue(s.startsWith("{\"at\":"));
+        assertEquals("uuid-1", json.fromJson("{\"value\":\"uuid-1\"}", CrptApi.CreateDocResponse.class).value);
+    }
+}
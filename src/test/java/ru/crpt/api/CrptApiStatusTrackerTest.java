@@ -0,0 +1,351 @@
+package ru.crpt.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrptApiStatusTrackerTest {
+
+    static final class StatusExecutor implements CrptApi.HttpExecutor {
+        final Map<String, String> statuses = new ConcurrentHashMap<>();
+        final List<List<String>> batches = new ArrayList<>();
+        volatile CrptApi.HttpReq last;
+        volatile int status = 200;
+
+        @Override
+        public synchronized CrptApi.Result execute(CrptApi.HttpReq request) {
+            last = request;
+            String query = request.uri.getRawQuery();
+            String idsParam = query.substring("ids=".length()).split("&")[0];
+            List<String> ids = new ArrayList<>();
+            StringBuilder body = new StringBuilder("{\"results\":[");
+            for (String raw : idsParam.split(",")) {
+                String id = URLDecoder.decode(raw, StandardCharsets.UTF_8);
+                ids.add(id);
+                String docStatus = statuses.get(id);
+                if (docStatus == null) continue;
+                if (body.charAt(body.length() - 1) != '[') body.append(',');
+                body.append("{\"number\":\"").append(id).append("\",\"status\":\"")
+                        .append(docStatus).append("\",\"type\":\"LP_INTRODUCE_GOODS\"}");
+            }
+            batches.add(ids);
+            if (status != 200) return new CrptApi.Result(status, "err", Map.of());
+            return new CrptApi.Result(200, body.append("]}").toString(), Map.of());
+        }
+
+        synchronized int calls() {
+            return batches.size();
+        }
+    }
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final StatusExecutor exec = new StatusExecutor();
+
+    private CrptApi api() {
+        return new CrptApi.Builder().httpExecutor(exec).limit(TimeUnit.SECONDS, 1000).build();
+    }
+
+    private CrptApi.DocumentStatusTracker tracker(int batchSize, int pollsPerSecond, Duration maxTracking, int cacheSize) {
+        var cfg = new CrptApi.StatusTrackerConfig(batchSize, pollsPerSecond, Duration.ofMillis(10), Duration.ofMillis(40), maxTracking, cacheSize);
+        return new CrptApi.DocumentStatusTracker(api(), cfg, null, clock::get, false);
+    }
+
+    private CrptApi.DocumentStatusTracker tracker(int batchSize) {
+        return tracker(batchSize, 1000, Duration.ofHours(1), 100);
+    }
+
+    private int pollAt(CrptApi.DocumentStatusTracker tracker, long millisFromNow) {
+        clock.addAndGet(millisFromNow * MS);
+        int before = exec.calls();
+        tracker.pollDue();
+        return exec.calls() - before;
+    }
+
+    @Test
+    void getDocumentStatuses_sendsSingleGetWithAllIds() throws Exception {
+        exec.statuses.put("a", "CHECKED_OK");
+        exec.statuses.put("b", "IN_PROGRESS");
+
+        Map<String, CrptApi.DocumentStatus> res = api().getDocumentStatuses(List.of("a", "b"), CrptApi.CallOptions.ofProductGroup("milk"));
+
+        assertEquals(1, exec.calls());
+        assertEquals("GET", exec.last.method);
+        assertTrue(exec.last.uri.toString().contains("/api/v4/true-api/doc/list?ids=a,b&pg=milk"));
+        assertTrue(res.get("a").isTerminal());
+        assertFalse(res.get("b").isTerminal());
+    }
+
+    @Test
+    void getDocumentStatuses_splitsLargeIdSetsIntoBoundedQueries() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) ids.add("doc-" + i);
+
+        api().getDocumentStatuses(ids, null);
+
+        assertEquals(3, exec.calls());
+        for (List<String> batch : exec.batches) assertTrue(batch.size() <= CrptApi.MAX_STATUS_BATCH);
+
+        List<String> longIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) longIds.add("x".repeat(1000) + i);
+        CrptApi api = api();
+        for (List<String> chunk : api.chunkDocIds(longIds)) {
+            int chars = 0;
+            for (String id : chunk) chars += api.statusQueryChars(id);
+            assertTrue(chars <= CrptApi.MAX_STATUS_QUERY_CHARS);
+        }
+    }
+
+    @Test
+    void customStatusQuery_isUsedForPathAndQuery() throws Exception {
+        var api = new CrptApi.Builder()
+                .httpExecutor(exec)
+                .docStatusQuery((ids, options) -> "/custom/list?ids=" + String.join(",", ids))
+                .build();
+        api.getDocumentStatuses(List.of("a"), null);
+        assertEquals("/custom/list", exec.last.uri.getPath());
+    }
+
+    @Test
+    void customStatusQuery_controlsParsingAndBatchCost() throws Exception {
+        CrptApi.DocStatusQuery query = new CrptApi.DocStatusQuery() {
+            @Override public String pathAndQuery(List<String> ids, CrptApi.CallOptions options) {
+                return "/custom/list?ids=" + String.join(",", ids);
+            }
+            @Override public Map<String, CrptApi.DocumentStatus> parse(String body, CrptApi.JsonSerializer json) {
+                return Map.of("a", new CrptApi.DocumentStatus("a", "CHECKED_OK"));
+            }
+            @Override public int queryChars(String docId) {
+                return CrptApi.MAX_STATUS_QUERY_CHARS / 2;
+            }
+        };
+        var api = new CrptApi.Builder().httpExecutor(exec).docStatusQuery(query).limit(TimeUnit.SECONDS, 1000).build();
+
+        Map<String, CrptApi.DocumentStatus> res = api.getDocumentStatuses(List.of("a", "b", "c", "d", "e"), null);
+
+        assertEquals("CHECKED_OK", res.get("a").status);
+        assertEquals(3, exec.calls());
+        for (List<String> batch : exec.batches) assertTrue(batch.size() <= 2);
+    }
+
+    @Test
+    void tracker_expiresOverdueIds_evenWhenLimiterIsSaturated() throws Exception {
+        var api = new CrptApi.Builder()
+                .httpExecutor(exec)
+                .rateLimiter(new CrptApi.RateLimiter() {
+                    @Override public void acquire() { }
+                    @Override public boolean tryAcquire() { return false; }
+                })
+                .build();
+        var cfg = new CrptApi.StatusTrackerConfig(10, 2, Duration.ofMillis(10), Duration.ofMillis(40), Duration.ofMillis(50), 100);
+        try (var tracker = new CrptApi.DocumentStatusTracker(api, cfg, null, clock::get, false)) {
+            var f = tracker.track("starved");
+            assertEquals(0, pollAt(tracker, 49));
+            assertFalse(f.isDone());
+            assertEquals(0, pollAt(tracker, 100_000));
+
+            assertEquals(0, tracker.pendingCount());
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(1, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof CrptApi.TimeoutCrptApiException);
+        }
+    }
+
+    @Test
+    void tracker_deniedLimiterPermit_doesNotConsumePollSlot() throws Exception {
+        AtomicBoolean allow = new AtomicBoolean(false);
+        var api = new CrptApi.Builder()
+                .httpExecutor(exec)
+                .rateLimiter(new CrptApi.RateLimiter() {
+                    @Override public void acquire() { }
+                    @Override public boolean tryAcquire() { return allow.get(); }
+                })
+                .build();
+        var cfg = new CrptApi.StatusTrackerConfig(1, 1, Duration.ofMillis(10), Duration.ofMillis(40), Duration.ofHours(1), 100);
+        try (var tracker = new CrptApi.DocumentStatusTracker(api, cfg, null, clock::get, false)) {
+            tracker.track("a");
+            tracker.track("b");
+            assertEquals(0, pollAt(tracker, 10));
+            assertEquals(0, pollAt(tracker, 1));
+            allow.set(true);
+            assertEquals(1, pollAt(tracker, 1));   // слот окна не был израсходован отказами
+            assertEquals(0, pollAt(tracker, 1));   // лимит 1 опрос/с
+        }
+    }
+
+    @Test
+    void config_rejectsBatchSizeAboveCap() {
+        assertThrows(IllegalArgumentException.class, () -> new CrptApi.StatusTrackerConfig(
+                CrptApi.MAX_STATUS_BATCH + 1, 1, Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofHours(1), 10));
+    }
+
+    @Test
+    void tracker_batchesPendingIds_andCompletesOnTerminalStatus() throws Exception {
+        try (var tracker = tracker(2)) {
+            List<CompletableFuture<CrptApi.DocumentStatus>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) futures.add(tracker.track("doc-" + i));
+            assertEquals(5, tracker.pendingCount());
+
+            assertEquals(0, pollAt(tracker, 9));
+            for (int i = 0; i < 5; i++) exec.statuses.put("doc-" + i, i % 2 == 0 ? "CHECKED_OK" : "CHECKED_NOT_OK");
+            assertEquals(3, pollAt(tracker, 1));
+
+            for (int i = 0; i < 5; i++) {
+                CrptApi.DocumentStatus s = futures.get(i).getNow(null);
+                assertEquals("doc-" + i, s.docId);
+                assertTrue(s.isTerminal());
+            }
+            assertEquals(0, tracker.pendingCount());
+            assertEquals(List.of(List.of("doc-0", "doc-1"), List.of("doc-2", "doc-3"), List.of("doc-4")), exec.batches);
+        }
+    }
+
+    @Test
+    void tracker_intervalDoublesWhileUnchanged_andResetsOnStatusChange() throws Exception {
+        exec.statuses.put("d", "IN_PROGRESS");
+        try (var tracker = tracker(10)) {
+            var f = tracker.track("d");
+
+            assertEquals(1, pollAt(tracker, 10));  // первый статус -> минимальный интервал 10 мс
+            assertEquals(0, pollAt(tracker, 9));
+            assertEquals(1, pollAt(tracker, 1));   // без изменений -> 20 мс
+            assertEquals(0, pollAt(tracker, 19));
+            assertEquals(1, pollAt(tracker, 1));   // без изменений -> 40 мс (максимум)
+            assertEquals(0, pollAt(tracker, 39));
+            assertEquals(1, pollAt(tracker, 1));   // максимум не превышается -> снова 40 мс
+            assertEquals(0, pollAt(tracker, 39));
+            exec.statuses.put("d", "WAIT_ACCEPTANCE");
+            assertEquals(1, pollAt(tracker, 1));   // статус изменился -> сброс до 10 мс
+            assertEquals(0, pollAt(tracker, 9));
+            exec.statuses.put("d", "ACCEPTED");
+            assertEquals(1, pollAt(tracker, 1));
+
+            assertEquals("ACCEPTED", f.getNow(null).status);
+        }
+    }
+
+    @Test
+    void tracker_rateLimited429_movesBatchToMaxInterval() throws Exception {
+        exec.status = 429;
+        try (var tracker = tracker(10)) {
+            var f = tracker.track("r");
+            assertEquals(1, pollAt(tracker, 10));
+            assertEquals(0, pollAt(tracker, 39));
+            exec.status = 200;
+            exec.statuses.put("r", "CHECKED_OK");
+            assertEquals(1, pollAt(tracker, 1));
+            assertEquals("CHECKED_OK", f.getNow(null).status);
+        }
+    }
+
+    @Test
+    void tracker_respectsMaxPollsPerSecond() throws Exception {
+        try (var tracker = tracker(1, 2, Duration.ofHours(1), 100)) {
+            for (int i = 0; i < 5; i++) tracker.track("p-" + i);
+            assertEquals(2, pollAt(tracker, 10));
+            assertEquals(0, pollAt(tracker, 500));
+            assertEquals(2, pollAt(tracker, 500));
+        }
+    }
+
+    @Test
+    void tracker_failsFuture_whenDocumentNeverBecomesTerminal() throws Exception {
+        try (var tracker = tracker(10, 1000, Duration.ofMillis(50), 100)) {
+            var missing = tracker.track("missing");
+            exec.statuses.put("stuck", "IN_PROGRESS");
+            var stuck = tracker.track("stuck");
+
+            for (int i = 0; i < 10 && tracker.pendingCount() > 0; i++) pollAt(tracker, 40);
+
+            assertEquals(0, tracker.pendingCount());
+            ExecutionException e1 = assertThrows(ExecutionException.class, () -> missing.get(1, TimeUnit.SECONDS));
+            assertTrue(e1.getCause() instanceof CrptApi.TimeoutCrptApiException);
+            ExecutionException e2 = assertThrows(ExecutionException.class, () -> stuck.get(1, TimeUnit.SECONDS));
+            assertTrue(e2.getCause() instanceof CrptApi.TimeoutCrptApiException);
+        }
+    }
+
+    @Test
+    void tracker_returnsCachedTerminalStatus_withoutRequest() throws Exception {
+        exec.statuses.put("done", "ACCEPTED");
+        try (var tracker = tracker(10)) {
+            var first = tracker.track("done");
+            pollAt(tracker, 10);
+            assertEquals("ACCEPTED", first.getNow(null).status);
+            int callsAfterFirst = exec.calls();
+
+            CompletableFuture<CrptApi.DocumentStatus> again = tracker.track("done");
+            assertTrue(again.isDone());
+            assertEquals("ACCEPTED", again.get().status);
+            assertEquals(0, tracker.pendingCount());
+            assertEquals(callsAfterFirst, exec.calls());
+        }
+    }
+
+    @Test
+    void tracker_terminalCache_evictsLeastRecentlyUsed() throws Exception {
+        exec.statuses.put("a", "CHECKED_OK");
+        exec.statuses.put("b", "CHECKED_OK");
+        exec.statuses.put("c", "CHECKED_OK");
+        try (var tracker = tracker(10, 1000, Duration.ofHours(1), 2)) {
+            tracker.track("a");
+            tracker.track("b");
+            pollAt(tracker, 10);
+            assertNotNull(tracker.cachedStatus("a"));
+
+            tracker.track("c");
+            pollAt(tracker, 10);
+
+            assertNotNull(tracker.cachedStatus("a"));
+            assertNull(tracker.cachedStatus("b"));
+            assertNotNull(tracker.cachedStatus("c"));
+        }
+    }
+
+    @Test
+    void tracker_sameIdTrackedTwice_isPolledOnce() throws Exception {
+        exec.statuses.put("x", "CHECKED_OK");
+        try (var tracker = tracker(10)) {
+            var f1 = tracker.track("x");
+            var f2 = tracker.track("x");
+            assertEquals(1, tracker.pendingCount());
+            assertEquals(1, pollAt(tracker, 10));
+            assertEquals("CHECKED_OK", f1.getNow(null).status);
+            assertEquals("CHECKED_OK", f2.getNow(null).status);
+        }
+    }
+
+    @Test
+    void tracker_authError_failsFutures() throws Exception {
+        exec.status = 401;
+        try (var tracker = tracker(10)) {
+            var f = tracker.track("y");
+            pollAt(tracker, 10);
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(1, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof CrptApi.AuthenticationException);
+        }
+    }
+
+    @Test
+    void tracker_close_cancelsPendingAndRejectsNewIds() throws Exception {
+        CrptApi.DocumentStatusTracker tracker = api().statusTracker(CrptApi.StatusTrackerConfig.defaults(), null);
+        var f = tracker.track("z");
+        tracker.close();
+        assertTrue(f.isCompletedExceptionally());
+        assertEquals(0, tracker.pendingCount());
+        assertThrows(IllegalStateException.class, () -> tracker.track("w"));
+    }
+}
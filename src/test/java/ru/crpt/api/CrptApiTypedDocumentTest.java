@@ -0,0 +1,157 @@
+package ru.crpt.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrptApiTypedDocumentTest {
+
+    static final class CapturingExecutor implements CrptApi.HttpExecutor {
+        volatile CrptApi.HttpReq last;
+        @Override
+        public CrptApi.Result execute(CrptApi.HttpReq request) {
+            this.last = request;
+            return new CrptApi.Result(200, "{\"value\":\"uuid-1\"}", Map.of());
+        }
+    }
+
+    private static final com.fasterxml.jackson.databind.ObjectMapper MAPPER = new com.fasterxml.jackson.databind.ObjectMapper();
+
+    private static Map<?, ?> payload(CrptApi.HttpReq req) throws Exception {
+        return MAPPER.readValue(req.body, Map.class);
+    }
+
+    private static Map<?, ?> decodedDocument(Map<?, ?> payload) throws Exception {
+        String pd = (String) payload.get("product_document");
+        return MAPPER.readValue(new String(Base64.getDecoder().decode(pd), StandardCharsets.UTF_8), Map.class);
+    }
+
+    @Test
+    void introduceGoods_isWrittenByCodec_withTypeFromDocument() throws Exception {
+        var doc = new CrptApi.IntroduceGoodsDocument();
+        doc.description = new CrptApi.IntroduceGoodsDocument.Description();
+        doc.description.participantInn = "1234567890";
+        doc.doc_id = "42";
+        doc.owner_inn = "1234567890";
+        doc.production_date = LocalDate.of(2024, 1, 23);
+        doc.importRequest = true;
+        var product = new CrptApi.IntroduceGoodsDocument.Product();
+        product.uit_code = "0104600000000000215abc\"\\";
+        product.tnved_code = "6401";
+        doc.products = List.of(product);
+
+        CapturingExecutor exec = new CapturingExecutor();
+        var api = new CrptApi.Builder().httpExecutor(exec).limit(TimeUnit.SECONDS, 100).build();
+        var res = api.createDocument(doc, "sig==", null);
+        assertEquals("uuid-1", res.parsed.value);
+
+        Map<?, ?> payload = payload(exec.last);
+        assertEquals("LP_INTRODUCE_GOODS", payload.get("type"));
+
+        Map<?, ?> decoded = decodedDocument(payload);
+        assertEquals(Map.of("participantInn", "1234567890"), decoded.get("description"));
+        assertEquals("42", decoded.get("doc_id"));
+        assertEquals("LP_INTRODUCE_GOODS", decoded.get("doc_type"));
+        assertEquals(Boolean.TRUE, decoded.get("importRequest"));
+        assertEquals("2024-01-23", decoded.get("production_date"));
+        assertFalse(decoded.containsKey("reg_number"));
+        assertEquals(List.of(Map.of("uit_code", "0104600000000000215abc\"\\", "tnved_code", "6401")), decoded.get("products"));
+    }
+
+    @Test
+    void shipment_acceptance_withdrawal_useTheirOwnTypes() throws Exception {
+        var ship = new CrptApi.ShipmentDocument();
+        ship.document_num = "S-1";
+        var shipProduct = new CrptApi.ShipmentDocument.Product();
+        shipProduct.uit_code = "uit-1";
+        shipProduct.product_cost = 10_000L;
+        ship.products = List.of(shipProduct);
+
+        var accept = new CrptApi.AcceptanceDocument();
+        accept.accept_all = false;
+        accept.acceptance_date = LocalDate.of(2024, 2, 1);
+
+        var withdrawal = new CrptApi.WithdrawalDocument();
+        withdrawal.inn = "1234567890";
+        withdrawal.action = "RETAIL";
+        var cis = new CrptApi.WithdrawalDocument.Product();
+        cis.cis = "cis-1";
+        withdrawal.products = List.of(cis);
+
+        CapturingExecutor exec = new CapturingExecutor();
+        var api = new CrptApi.Builder().httpExecutor(exec).limit(TimeUnit.SECONDS, 100).build();
+
+        api.createDocument(ship, "s", null);
+        Map<?, ?> p1 = payload(exec.last);
+        assertEquals("LP_SHIP_GOODS", p1.get("type"));
+        assertEquals(List.of(Map.of("uit_code", "uit-1", "product_cost", 10_000)), decodedDocument(p1).get("products"));
+
+        api.createDocument(accept, "s", null);
+        Map<?, ?> p2 = payload(exec.last);
+        assertEquals("LP_ACCEPT_GOODS", p2.get("type"));
+        assertEquals(Map.of("accept_all", false, "acceptance_date", "2024-02-01"), decodedDocument(p2));
+
+        api.createDocument(withdrawal, "s", null);
+        Map<?, ?> p3 = payload(exec.last);
+        assertEquals("LK_RECEIPT", p3.get("type"));
+        assertEquals("RETAIL", decodedDocument(p3).get("action"));
+    }
+
+    @Test
+    void mapDocument_withExplicitType_usesJsonFallback() throws Exception {
+        CapturingExecutor exec = new CapturingExecutor();
+        var api = new CrptApi.Builder().httpExecutor(exec).limit(TimeUnit.SECONDS, 100).build();
+
+        api.createDocument(CrptApi.DocumentType.LP_SHIP_GOODS, Map.of("document_num", "S-2"), "s", null);
+        Map<?, ?> payload = payload(exec.last);
+        assertEquals("LP_SHIP_GOODS", payload.get("type"));
+        assertEquals(Map.of("document_num", "S-2"), decodedDocument(payload));
+    }
+
+    @Test
+    void typedDocument_withMismatchedType_isRejectedBeforeSending() {
+        CapturingExecutor exec = new CapturingExecutor();
+        var api = new CrptApi.Builder().httpExecutor(exec).limit(TimeUnit.SECONDS, 1).build();
+        var ship = new CrptApi.ShipmentDocument();
+
+        assertThrows(IllegalArgumentException.class, () -> api.createDocumentForDomesticGoodsParsed(ship, "s", null));
+        assertThrows(IllegalArgumentException.class, () -> api.createDocument(CrptApi.DocumentType.LK_RECEIPT, ship, "s", null));
+        assertNull(exec.last);
+        assertTrue(api.tryAcquirePermit(), "Разрешение лимита не должно расходоваться");
+    }
+
+    @Test
+    void nullProductElements_areWrittenAsJsonNull() throws Exception {
+        var ship = new CrptApi.ShipmentDocument();
+        var product = new CrptApi.ShipmentDocument.Product();
+        product.uit_code = "uit-1";
+        ship.products = Arrays.asList(null, product, null);
+
+        CapturingExecutor exec = new CapturingExecutor();
+        var api = new CrptApi.Builder().httpExecutor(exec).limit(TimeUnit.SECONDS, 100).build();
+        api.createDocument(ship, "s", null);
+
+        assertEquals(Arrays.asList(null, Map.of("uit_code", "uit-1"), null), decodedDocument(payload(exec.last)).get("products"));
+    }
+
+    @Test
+    void jsonBytesWriter_encodesUtf8AndControlCharacters() throws Exception {
+        var w = new CrptApi.JsonBytesWriter(16);
+        w.beginObject();
+        w.stringField(CrptApi.JsonBytesWriter.key("s"), "Молоко\t\u0001😀");
+        w.longField(CrptApi.JsonBytesWriter.key("n"), -5L);
+        w.endObject();
+
+        String json = new String(w.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("{\"s\":\"Молоко\\t\\u0001😀\",\"n\":-5}", json);
+        assertEquals(Base64.getEncoder().encodeToString(w.toByteArray()), w.toBase64());
+    }
+}